@@ -0,0 +1,79 @@
+package com.example.banking.service;
+
+import com.example.banking.model.Account;
+import com.example.banking.repository.AccountRepository;
+import com.example.metrics.MetricsConfiguration;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Withdraw/deposit round trips through AccountService against the in-memory H2
+ * database, including the transaction and the JPA load/flush. Hibernate's write path takes
+ * about 25 s to reach steady state on a single core, hence the long warmup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 20, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class AccountServiceBenchmark {
+    
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+    
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private Long accountId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BenchmarkConfiguration.class)
+            .web(WebApplicationType.NONE)
+            .logStartupInfo(false)
+            .run("--logging.level.root=WARN");
+        accountService = context.getBean(AccountService.class);
+        
+        // Large enough that withdrawals never run the balance dry during a trial
+        Account account = context.getBean(AccountRepository.class)
+            .save(new Account("ACC-BENCH", new BigDecimal("1000000000000.00"), "CHECKING"));
+        accountId = account.getId();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Account withdraw() {
+        return accountService.withdraw(accountId, AMOUNT);
+    }
+    
+    @Benchmark
+    public Account deposit() {
+        return accountService.deposit(accountId, AMOUNT);
+    }
+    
+    @Benchmark
+    public Account getAccount() {
+        return accountService.getAccount(accountId);
+    }
+    
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = Account.class)
+    @EnableJpaRepositories(basePackageClasses = AccountRepository.class)
+    @Import({AccountService.class, MetricsConfiguration.class})
+    static class BenchmarkConfiguration {
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file against a stored baseline and flags every benchmark
+ * whose score got worse by more than the given tolerance and whose confidence interval
+ * no longer overlaps the baseline's, so run-to-run noise alone does not fail the build.
+ *
+ * <p>Usage: {@code BaselineComparator <result.json> <baseline.json> [tolerance] [failOnRegression]}
+ *
+ * <p>To record a new baseline, copy {@code target/jmh-result.json} over
+ * {@code src/jmh/resources/jmh-baseline.json}.
+ */
+public class BaselineComparator {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparator <result.json> <baseline.json> [tolerance] [failOnRegression]");
+            System.exit(2);
+        }
+        
+        Path resultFile = Path.of(args[0]);
+        Path baselineFile = Path.of(args[1]);
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.20;
+        boolean failOnRegression = args.length <= 3 || Boolean.parseBoolean(args[3]);
+        
+        if (!Files.exists(baselineFile)) {
+            System.out.println("No baseline at " + baselineFile + ", skipping regression check");
+            return;
+        }
+        
+        Map<String, Score> current = readScores(resultFile);
+        Map<String, Score> baseline = readScores(baselineFile);
+        
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %s: %.3f %s%n", entry.getKey(), entry.getValue().value, entry.getValue().unit);
+                continue;
+            }
+            
+            Score after = entry.getValue();
+            double change = after.relativeChange(before);
+            boolean significant = !after.overlaps(before);
+            String status = !significant ? "OK" : change > tolerance ? "REGRESSION" : change < -tolerance ? "IMPROVED" : "OK";
+            if ("REGRESSION".equals(status)) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s: %.3f +/- %.3f -> %.3f +/- %.3f %s (%+.1f%%)%n", status, entry.getKey(),
+                before.value, before.error, after.value, after.error, after.unit, change * 100);
+        }
+        
+        if (regressions > 0) {
+            String message = regressions + " benchmark(s) regressed by more than " + Math.round(tolerance * 100) + "%";
+            if (failOnRegression) {
+                System.err.println(message);
+                System.exit(1);
+            }
+            System.out.println(message);
+        }
+    }
+    
+    static Map<String, Score> readScores(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : MAPPER.readTree(file.toFile())) {
+            JsonNode metric = run.get("primaryMetric");
+            double error = metric.path("scoreError").asDouble(0);
+            scores.put(key(run), new Score(
+                metric.get("score").asDouble(),
+                Double.isNaN(error) ? 0 : error,
+                metric.get("scoreUnit").asText(),
+                "thrpt".equals(run.get("mode").asText())
+            ));
+        }
+        return scores;
+    }
+    
+    private static String key(JsonNode run) {
+        StringBuilder key = new StringBuilder(run.get("benchmark").asText());
+        JsonNode params = run.get("params");
+        if (params != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> param = fields.next();
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+        }
+        return key.toString();
+    }
+    
+    record Score(double value, double error, String unit, boolean higherIsBetter) {
+        
+        /**
+         * Whether the 99.9% confidence intervals reported by JMH overlap.
+         */
+        boolean overlaps(Score other) {
+            return value - error <= other.value + other.error && other.value - other.error <= value + error;
+        }
+        
+        /**
+         * Positive when this score is worse than the baseline, as a fraction of the baseline.
+         */
+        double relativeChange(Score baseline) {
+            double change = (value - baseline.value) / baseline.value;
+            return higherIsBetter ? -change : change;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import com.example.demo.client.InventoryClient;
+import com.example.demo.client.NotificationClient;
+import com.example.demo.model.Order;
+import com.example.demo.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Overhead of OrderService.createOrder itself, with in-memory fakes standing in
+ * for the inventory service, the order store and the notification service.
+ * The order store keeps nothing, so the result is the cost of one order, not of a growing map.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class OrderServiceBenchmark {
+    
+    private OrderService orderService;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        orderService = new OrderService(new DiscardingOrderRepository(), new NoOpNotificationClient(), new FixedInventoryClient());
+    }
+    
+    @Benchmark
+    public Order createOrder() {
+        return orderService.createOrder("CUST-1", "PROD-1", 3);
+    }
+    
+    static class FixedInventoryClient implements InventoryClient {
+        private static final BigDecimal PRICE = new BigDecimal("19.99");
+        
+        @Override
+        public boolean checkAvailability(String productId, int quantity) {
+            return true;
+        }
+        
+        @Override
+        public BigDecimal getPrice(String productId) {
+            return PRICE;
+        }
+        
+        @Override
+        public void restoreInventory(String productId, int quantity) {
+        }
+        
+        @Override
+        public boolean reserveInventory(String productId, int quantity) {
+            return true;
+        }
+    }
+    
+    static class NoOpNotificationClient implements NotificationClient {
+        @Override
+        public void sendOrderConfirmation(String customerId, Long orderId) {
+        }
+        
+        @Override
+        public void sendOrderCancellation(String customerId, Long orderId) {
+        }
+    }
+    
+    static class DiscardingOrderRepository implements OrderRepository {
+        private final AtomicLong sequence = new AtomicLong();
+        
+        @Override
+        public Order save(Order order) {
+            if (order.getId() == null) {
+                order.setId(sequence.incrementAndGet());
+            }
+            return order;
+        }
+        
+        @Override
+        public Optional<Order> findById(Long id) {
+            return Optional.empty();
+        }
+        
+        @Override
+        public void delete(Order order) {
+        }
+    }
+}
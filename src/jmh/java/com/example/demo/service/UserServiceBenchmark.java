@@ -0,0 +1,72 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup costs of UserService as the user list grows. Every lookup is a linear scan,
+ * so the 10M case needs a large heap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+    
+    private static final String[] NAMES = {
+        "Alice", "Bob", "Carol", "Dave", "Erin", "Frank", "Grace", "Heidi",
+        "Ivan", "Judy", "Mallory", "Niaj", "Olivia", "Peggy", "Rupert", "Sybil",
+        "Trent", "Victor", "Walter", "Zoe"
+    };
+    
+    @Param({"1000", "100000", "10000000"})
+    private int userCount;
+    
+    private UserService service;
+    private String firstEmail;
+    private String lastEmail;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<User> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new User("user" + i + "@example.com", NAMES[i % NAMES.length], i % 2 == 0));
+        }
+        
+        service = new UserService();
+        service.setUsers(users);
+        firstEmail = users.get(0).getEmail();
+        lastEmail = users.get(userCount - 1).getEmail();
+    }
+    
+    @Benchmark
+    public User getUserByEmailFirst() {
+        return service.getUserByEmail(firstEmail);
+    }
+    
+    @Benchmark
+    public User getUserByEmailLast() {
+        return service.getUserByEmail(lastEmail);
+    }
+    
+    @Benchmark
+    public User getUserByEmailMissing() {
+        return service.getUserByEmail("missing@example.com");
+    }
+    
+    @Benchmark
+    public List<User> getActiveUsers() {
+        return service.getActiveUsers();
+    }
+    
+    @Benchmark
+    public List<User> getUsersByNamePrefix() {
+        return service.getUsersByNamePrefix("Gr");
+    }
+}
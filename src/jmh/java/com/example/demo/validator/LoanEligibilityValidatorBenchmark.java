@@ -0,0 +1,45 @@
+package com.example.demo.validator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single eligibility decision, for an applicant who passes every check
+ * (full debt-to-income division) and one rejected on the first check.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class LoanEligibilityValidatorBenchmark {
+    
+    private LoanEligibilityValidator validator;
+    
+    private BigDecimal goodCreditScore;
+    private BigDecimal poorCreditScore;
+    private BigDecimal annualIncome;
+    private BigDecimal monthlyDebtPayments;
+    
+    @Setup
+    public void setUp() {
+        validator = new LoanEligibilityValidator();
+        goodCreditScore = new BigDecimal("720");
+        poorCreditScore = new BigDecimal("580");
+        annualIncome = new BigDecimal("85000");
+        monthlyDebtPayments = new BigDecimal("1500");
+    }
+    
+    @Benchmark
+    public boolean eligibleApplicant() {
+        return validator.isEligible(goodCreditScore, annualIncome, monthlyDebtPayments, 36);
+    }
+    
+    @Benchmark
+    public boolean rejectedOnCreditScore() {
+        return validator.isEligible(poorCreditScore, annualIncome, monthlyDebtPayments, 36);
+    }
+}
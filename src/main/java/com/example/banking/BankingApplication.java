@@ -0,0 +1,15 @@
+package com.example.banking;
+
+import com.example.metrics.MetricsConfiguration;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Import;
+
+@SpringBootApplication
+@Import(MetricsConfiguration.class)
+public class BankingApplication {
+    
+    public static void main(String[] args) {
+        SpringApplication.run(BankingApplication.class, args);
+    }
+}
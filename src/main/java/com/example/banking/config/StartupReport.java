@@ -0,0 +1,50 @@
+package com.example.banking.config;
+
+import com.example.banking.repository.AccountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Logs how long after JVM start the application served its first repository request.
+ * Enable with {@code app.startup.report=true} to compare startup profiles. With
+ * {@code app.startup.exit=true} the application then shuts down, which makes the run a
+ * training start for an AppCDS archive that covers the first request.
+ */
+@Component
+@ConditionalOnProperty(name = "app.startup.report", havingValue = "true")
+public class StartupReport {
+    
+    private static final Logger log = LoggerFactory.getLogger(StartupReport.class);
+    
+    private final AccountRepository accountRepository;
+    private final boolean exitAfterReport;
+    
+    public StartupReport(AccountRepository accountRepository, @Value("${app.startup.exit:false}") boolean exitAfterReport) {
+        this.accountRepository = accountRepository;
+        this.exitAfterReport = exitAfterReport;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportFirstRequest(ApplicationReadyEvent event) {
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        long ready = System.currentTimeMillis() - jvmStart;
+        
+        // Forces lazy JPA repository bootstrap and lazy beans on the request path
+        long accounts = accountRepository.count();
+        long firstRequest = System.currentTimeMillis() - jvmStart;
+        
+        log.info("Time to ready: {} ms, time to first request: {} ms ({} accounts)", ready, firstRequest, accounts);
+        
+        if (exitAfterReport) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
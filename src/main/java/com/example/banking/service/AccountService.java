@@ -3,43 +3,101 @@ package com.example.banking.service;
 import com.example.banking.model.Account;
 import com.example.banking.repository.AccountRepository;
 import com.example.banking.exception.InsufficientFundsException;
+import com.example.metrics.MetricsConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class AccountService {
     
     private final AccountRepository accountRepository;
     
+    private final Timer withdrawTimer;
+    private final Timer depositTimer;
+    private final Timer getAccountTimer;
+    private final Counter insufficientFundsCounter;
+    private final boolean metricsEnabled;
+    
     public AccountService(AccountRepository accountRepository) {
+        this(accountRepository, MetricsConfiguration.defaultRegistry());
+    }
+    
+    @Autowired
+    public AccountService(AccountRepository accountRepository, MeterRegistry meterRegistry) {
         this.accountRepository = accountRepository;
+        this.withdrawTimer = operationTimer(meterRegistry, "withdraw");
+        this.depositTimer = operationTimer(meterRegistry, "deposit");
+        this.getAccountTimer = operationTimer(meterRegistry, "get");
+        this.insufficientFundsCounter = Counter.builder("account.insufficient.funds")
+            .description("Withdrawals rejected with InsufficientFundsException")
+            .register(meterRegistry);
+        this.metricsEnabled = MetricsConfiguration.isRecording(withdrawTimer);
     }
     
     @Transactional
     public Account withdraw(Long accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-            .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
-        
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException("Insufficient funds for withdrawal");
+        long start = startTiming();
+        try {
+            Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+            
+            if (account.getBalance().compareTo(amount) < 0) {
+                insufficientFundsCounter.increment();
+                throw new InsufficientFundsException("Insufficient funds for withdrawal");
+            }
+            
+            account.setBalance(account.getBalance().subtract(amount));
+            return accountRepository.save(account);
+        } finally {
+            record(withdrawTimer, start);
         }
-        
-        account.setBalance(account.getBalance().subtract(amount));
-        return accountRepository.save(account);
     }
     
     @Transactional
     public Account deposit(Long accountId, BigDecimal amount) {
-        Account account = accountRepository.findById(accountId)
-            .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
-        
-        account.setBalance(account.getBalance().add(amount));
-        return accountRepository.save(account);
+        long start = startTiming();
+        try {
+            Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+            
+            account.setBalance(account.getBalance().add(amount));
+            return accountRepository.save(account);
+        } finally {
+            record(depositTimer, start);
+        }
     }
     
     public Account getAccount(Long accountId) {
-        return accountRepository.findById(accountId)
-            .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+        long start = startTiming();
+        try {
+            return accountRepository.findById(accountId)
+                .orElseThrow(() -> new IllegalArgumentException("Account not found: " + accountId));
+        } finally {
+            record(getAccountTimer, start);
+        }
+    }
+    
+    private long startTiming() {
+        return metricsEnabled ? System.nanoTime() : 0L;
+    }
+    
+    private void record(Timer timer, long start) {
+        if (metricsEnabled) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private static Timer operationTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("account.operations")
+            .description("Time spent in AccountService operations")
+            .tag("operation", operation)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
     }
 }
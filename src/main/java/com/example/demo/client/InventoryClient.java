@@ -6,4 +6,10 @@ public interface InventoryClient {
     boolean checkAvailability(String productId, int quantity);
     BigDecimal getPrice(String productId);
     void restoreInventory(String productId, int quantity);
+    
+    /**
+     * Atomically takes {@code quantity} units out of stock, returning false if fewer are available.
+     * Stock taken this way goes back through {@link #restoreInventory(String, int)}.
+     */
+    boolean reserveInventory(String productId, int quantity);
 }
@@ -0,0 +1,255 @@
+package com.example.demo.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * InventoryClient decorator that leases stock from the backing client in batches and hands it
+ * out from local per-product counters, so most reservations are an in-memory decrement.
+ *
+ * <p>Every unit handed out by {@link #reserveInventory(String, int)} was first reserved on the
+ * backing client, so stock is never oversold. {@link #checkAvailability(String, int)} takes nothing;
+ * it counts local stock and asks the backing client only for the remainder. Restored units
+ * stay local until a product holds more than {@code maxLocalStock}, at which point the surplus is
+ * returned to the backing client in one call.
+ *
+ * <p>Units held locally are unavailable to everyone else, so a product's stock goes back to the
+ * backing client once it has gone {@code idleTimeout} without a reservation or restore. A background
+ * sweep does this even when the client receives no calls at all. {@link #close()} stops the sweep
+ * and returns everything still held.
+ */
+public class ReservingInventoryClient implements InventoryClient, AutoCloseable {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReservingInventoryClient.class);
+    
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(30);
+    
+    // One daemon thread sweeps every client; a sweep is a few map reads unless stock is due back
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-allotment-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final InventoryClient delegate;
+    private final int leaseSize;
+    private final int maxLocalStock;
+    private final long idleTimeoutNanos;
+    private final LongSupplier ticker;
+    private final Map<String, Allotment> allotments = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> sweep;
+    
+    public ReservingInventoryClient(InventoryClient delegate, int leaseSize) {
+        this(delegate, leaseSize, 2 * leaseSize);
+    }
+    
+    public ReservingInventoryClient(InventoryClient delegate, int leaseSize, int maxLocalStock) {
+        this(delegate, leaseSize, maxLocalStock, DEFAULT_IDLE_TIMEOUT);
+    }
+    
+    public ReservingInventoryClient(InventoryClient delegate, int leaseSize, int maxLocalStock, Duration idleTimeout) {
+        this(delegate, leaseSize, maxLocalStock, idleTimeout, System::nanoTime);
+    }
+    
+    ReservingInventoryClient(InventoryClient delegate, int leaseSize, int maxLocalStock, Duration idleTimeout,
+                             LongSupplier ticker) {
+        if (leaseSize <= 0) {
+            throw new IllegalArgumentException("Lease size must be positive: " + leaseSize);
+        }
+        if (maxLocalStock < leaseSize) {
+            throw new IllegalArgumentException("Max local stock must be at least the lease size: " + maxLocalStock);
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Idle timeout must be positive: " + idleTimeout);
+        }
+        this.delegate = delegate;
+        this.leaseSize = leaseSize;
+        this.maxLocalStock = maxLocalStock;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.ticker = ticker;
+        
+        // Checking twice per timeout returns idle stock at most 1.5 timeouts after its last use
+        long period = Math.max(idleTimeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(1));
+        this.sweep = SWEEPER.scheduleWithFixedDelay(this::returnIdleStock, period, period, TimeUnit.NANOSECONDS);
+    }
+    
+    @Override
+    public boolean checkAvailability(String productId, int quantity) {
+        int local = localStock(productId);
+        return local >= quantity || delegate.checkAvailability(productId, quantity - local);
+    }
+    
+    @Override
+    public boolean reserveInventory(String productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        
+        Allotment allotment = allotment(productId);
+        int local = takeUpTo(allotment.units, quantity);
+        int shortfall = quantity - local;
+        if (shortfall == 0) {
+            return true;
+        }
+        
+        // Not enough held locally: lease a full batch, or just the shortfall if the backing
+        // client is running low. The caller keeps what it needs, the rest is pooled.
+        boolean reserved = false;
+        try {
+            int lease = Math.max(leaseSize, shortfall);
+            if (delegate.reserveInventory(productId, lease)) {
+                allotment.units.addAndGet(lease - shortfall);
+                reserved = true;
+            } else {
+                reserved = lease > shortfall && delegate.reserveInventory(productId, shortfall);
+            }
+            return reserved;
+        } finally {
+            if (!reserved) {
+                allotment.units.addAndGet(local);
+            }
+        }
+    }
+    
+    @Override
+    public BigDecimal getPrice(String productId) {
+        return delegate.getPrice(productId);
+    }
+    
+    /**
+     * Takes the units back locally. Handing the surplus on to the backing client is best effort:
+     * if that fails the units simply stay local, so the restore itself has still taken effect and
+     * must not be retried.
+     */
+    @Override
+    public void restoreInventory(String productId, int quantity) {
+        Allotment allotment = allotment(productId);
+        AtomicInteger units = allotment.units;
+        units.addAndGet(quantity);
+        
+        // Hand the surplus back in one call, keeping a batch locally for the next orders
+        int current = units.get();
+        while (current > maxLocalStock) {
+            if (units.compareAndSet(current, leaseSize)) {
+                tryReturnToDelegate(productId, units, current - leaseSize);
+                return;
+            }
+            current = units.get();
+        }
+    }
+    
+    /**
+     * Units currently held locally for the given product.
+     */
+    public int localStock(String productId) {
+        Allotment allotment = allotments.get(productId);
+        return allotment == null ? 0 : allotment.units.get();
+    }
+    
+    /**
+     * Stops the idle sweep and returns every locally held unit to the backing client. Units that
+     * cannot be returned stay local and the first failure is rethrown.
+     */
+    @Override
+    public void close() {
+        sweep.cancel(false);
+        RuntimeException failure = null;
+        for (Map.Entry<String, Allotment> entry : allotments.entrySet()) {
+            AtomicInteger units = entry.getValue().units;
+            int held = units.getAndSet(0);
+            if (held > 0) {
+                try {
+                    returnToDelegate(entry.getKey(), units, held);
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    /**
+     * Returns the stock of every product that has not been reserved or restored for
+     * {@code idleTimeout}. Run periodically by the sweeper.
+     */
+    void returnIdleStock() {
+        long now = ticker.getAsLong();
+        allotments.forEach((productId, allotment) -> {
+            if (now - allotment.lastUsed >= idleTimeoutNanos && allotment.units.get() > 0) {
+                int held = allotment.units.getAndSet(0);
+                if (held > 0) {
+                    tryReturnToDelegate(productId, allotment.units, held);
+                }
+            }
+        });
+    }
+    
+    private Allotment allotment(String productId) {
+        Allotment allotment = allotments.get(productId);
+        if (allotment == null) {
+            allotment = allotments.computeIfAbsent(productId, id -> new Allotment());
+        }
+        allotment.lastUsed = ticker.getAsLong();
+        return allotment;
+    }
+    
+    /**
+     * Hands units already taken off the counter back to the backing client, putting them back
+     * on the counter if that fails so they are not lost on both sides.
+     */
+    private void returnToDelegate(String productId, AtomicInteger units, int quantity) {
+        try {
+            delegate.restoreInventory(productId, quantity);
+        } catch (RuntimeException e) {
+            units.addAndGet(quantity);
+            throw e;
+        }
+    }
+    
+    private void tryReturnToDelegate(String productId, AtomicInteger units, int quantity) {
+        try {
+            returnToDelegate(productId, units, quantity);
+        } catch (RuntimeException e) {
+            log.warn("Could not return {} units of {} to the backing client; keeping them locally", quantity, productId, e);
+        }
+    }
+    
+    /**
+     * Takes as many units as are held locally, up to {@code quantity}, and returns how many were taken.
+     */
+    private static int takeUpTo(AtomicInteger units, int quantity) {
+        int current;
+        int taken;
+        do {
+            current = units.get();
+            taken = Math.min(current, quantity);
+            if (taken <= 0) {
+                return 0;
+            }
+        } while (!units.compareAndSet(current, current - taken));
+        return taken;
+    }
+    
+    private static final class Allotment {
+        final AtomicInteger units = new AtomicInteger();
+        // Ticker time of the last reservation or restore
+        volatile long lastUsed;
+    }
+}
@@ -0,0 +1,373 @@
+package com.example.demo.client;
+
+import com.example.demo.exception.InventoryUnavailableException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * InventoryClient decorator that keeps a slow inventory service from tying up callers.
+ *
+ * <ul>
+ *   <li>Every call gives up after {@code callTimeout}.</li>
+ *   <li>At most {@code maxConcurrentCalls} requests are outstanding against the delegate;
+ *       further calls are rejected rather than queued (bulkhead).</li>
+ *   <li>After {@code failureThreshold} consecutive failures the circuit opens and calls fail
+ *       fast for {@code openDuration}, after which a single probe call is let through. Only
+ *       timeouts and infrastructure errors count as failures; caller errors such as
+ *       {@link IllegalArgumentException} show that the service answered.</li>
+ *   <li>The idempotent reads ({@code checkAvailability}, {@code getPrice}) send a hedged duplicate
+ *       request when the first one has not answered within the {@code hedgePercentile} latency
+ *       observed so far. {@code restoreInventory} and {@code reserveInventory} are never hedged.</li>
+ * </ul>
+ *
+ * All state is held in atomics, so callers never wait on a lock. Failures surface as
+ * {@link InventoryUnavailableException}; exceptions thrown by the delegate are rethrown as is.
+ * A client built without an executor owns its thread pool and shuts it down in {@link #close()}.
+ */
+public class ResilientInventoryClient implements InventoryClient, AutoCloseable {
+    
+    public record Settings(
+        Duration callTimeout,
+        int maxConcurrentCalls,
+        int failureThreshold,
+        Duration openDuration,
+        double hedgePercentile,
+        Duration minHedgeDelay
+    ) {
+        public Settings {
+            requirePositive(callTimeout, "Call timeout");
+            if (maxConcurrentCalls <= 0) {
+                throw new IllegalArgumentException("Max concurrent calls must be positive: " + maxConcurrentCalls);
+            }
+            if (failureThreshold <= 0) {
+                throw new IllegalArgumentException("Failure threshold must be positive: " + failureThreshold);
+            }
+            requirePositive(openDuration, "Open duration");
+            if (!(hedgePercentile > 0 && hedgePercentile <= 1)) {
+                throw new IllegalArgumentException("Hedge percentile must be in (0, 1]: " + hedgePercentile);
+            }
+            requirePositive(minHedgeDelay, "Min hedge delay");
+        }
+        
+        public static Settings defaults() {
+            return new Settings(Duration.ofSeconds(2), 32, 5, Duration.ofSeconds(10), 0.95, Duration.ofMillis(5));
+        }
+        
+        private static void requirePositive(Duration duration, String name) {
+            if (duration == null || duration.isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException(name + " must be positive: " + duration);
+            }
+        }
+    }
+    
+    // Hedging starts once the latency estimate is based on this many calls
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    
+    private final InventoryClient delegate;
+    private final Settings settings;
+    private final Executor executor;
+    // The pool created by the one-argument constructor; null when the caller supplied the executor
+    private final ExecutorService ownedExecutor;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // 0 while the circuit is closed, otherwise the nanoTime after which a probe call may go through
+    private final AtomicLong openUntil = new AtomicLong();
+    private final LatencyTracker latencies = new LatencyTracker();
+    
+    /**
+     * Uses the default settings and a thread pool owned by this client, shut down by {@link #close()}.
+     */
+    public ResilientInventoryClient(InventoryClient delegate) {
+        this.delegate = delegate;
+        this.settings = Settings.defaults();
+        this.ownedExecutor = ownedPool();
+        this.executor = ownedExecutor;
+    }
+    
+    /**
+     * Runs calls on the given executor, which stays the caller's to shut down.
+     */
+    public ResilientInventoryClient(InventoryClient delegate, Settings settings, Executor executor) {
+        this.delegate = delegate;
+        this.settings = settings;
+        this.executor = executor;
+        this.ownedExecutor = null;
+    }
+    
+    @Override
+    public boolean checkAvailability(String productId, int quantity) {
+        return call(() -> delegate.checkAvailability(productId, quantity), true);
+    }
+    
+    @Override
+    public BigDecimal getPrice(String productId) {
+        return call(() -> delegate.getPrice(productId), true);
+    }
+    
+    @Override
+    public void restoreInventory(String productId, int quantity) {
+        call(() -> {
+            delegate.restoreInventory(productId, quantity);
+            return null;
+        }, false);
+    }
+    
+    @Override
+    public boolean reserveInventory(String productId, int quantity) {
+        return call(() -> delegate.reserveInventory(productId, quantity), false);
+    }
+    
+    /**
+     * Shuts down the thread pool this client created, letting calls already running finish.
+     * Does nothing for an executor supplied by the caller.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+    
+    private <T> T call(Supplier<T> request, boolean idempotent) {
+        enterCircuit();
+        
+        long deadline = System.nanoTime() + settings.callTimeout().toNanos();
+        CompletableFuture<T> primary = attempt(request);
+        if (primary == null) {
+            throw new InventoryUnavailableException(
+                "Inventory bulkhead full: " + settings.maxConcurrentCalls() + " calls in flight");
+        }
+        
+        try {
+            CompletableFuture<T> result = idempotent ? hedge(request, primary, deadline) : primary;
+            T value = result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            onSuccess();
+            return value;
+        } catch (TimeoutException e) {
+            onFailure();
+            throw new InventoryUnavailableException(
+                "Inventory call timed out after " + settings.callTimeout().toMillis() + " ms");
+        } catch (ExecutionException e) {
+            if (isCallerError(e.getCause())) {
+                onSuccess();
+            } else {
+                onFailure();
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new InventoryUnavailableException("Inventory call failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InventoryUnavailableException("Interrupted while waiting for inventory", e);
+        }
+    }
+    
+    /**
+     * Waits for the primary request up to the hedge delay, then races a duplicate request against it.
+     * No duplicate is sent while the latency estimate is still warming up, when the hedge delay
+     * would reach the call deadline, or when the bulkhead is full.
+     */
+    private <T> CompletableFuture<T> hedge(Supplier<T> request, CompletableFuture<T> primary, long deadline)
+            throws ExecutionException, InterruptedException {
+        long hedgeDelay = hedgeDelayNanos();
+        if (hedgeDelay < 0 || hedgeDelay >= deadline - System.nanoTime()) {
+            return primary;
+        }
+        
+        try {
+            primary.get(hedgeDelay, TimeUnit.NANOSECONDS);
+            return primary;
+        } catch (TimeoutException e) {
+            CompletableFuture<T> backup = attempt(request);
+            return backup == null ? primary : firstSuccessOf(primary, backup);
+        }
+    }
+    
+    private long hedgeDelayNanos() {
+        if (latencies.count() < MIN_HEDGE_SAMPLES) {
+            return -1;
+        }
+        return Math.max(settings.minHedgeDelay().toNanos(), latencies.percentile(settings.hedgePercentile()));
+    }
+    
+    /**
+     * Submits one request to the delegate if the bulkhead has room, or returns null if it is full.
+     * The permit is held until the request itself finishes, even if the caller has given up on it.
+     */
+    private <T> CompletableFuture<T> attempt(Supplier<T> request) {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= settings.maxConcurrentCalls()) {
+                return null;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(request, executor);
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            throw new InventoryUnavailableException("Inventory executor rejected the call", e);
+        }
+        
+        future.whenComplete((value, error) -> {
+            inFlight.decrementAndGet();
+            if (error == null) {
+                latencies.record(System.nanoTime() - start);
+            }
+        });
+        return future;
+    }
+    
+    private static ExecutorService ownedPool() {
+        // Unbounded, but the bulkhead keeps the number of running requests, and so threads, small
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    private static <T> CompletableFuture<T> firstSuccessOf(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<T, Throwable> onComplete = (value, error) -> {
+            if (error == null) {
+                winner.complete(value);
+            } else if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(error);
+            }
+        };
+        first.whenComplete(onComplete);
+        second.whenComplete(onComplete);
+        return winner;
+    }
+    
+    /**
+     * Errors caused by the request itself rather than by the inventory service; these do not
+     * count towards opening the circuit.
+     */
+    private static boolean isCallerError(Throwable error) {
+        return error instanceof IllegalArgumentException || error instanceof UnsupportedOperationException;
+    }
+    
+    private void enterCircuit() {
+        long until = openUntil.get();
+        if (until == 0) {
+            return;
+        }
+        
+        // Once the open period has passed, exactly one caller re-arms the timer and goes through as the probe
+        long now = System.nanoTime();
+        if (now - until < 0 || !openUntil.compareAndSet(until, now + settings.openDuration().toNanos())) {
+            throw new InventoryUnavailableException("Inventory circuit open");
+        }
+    }
+    
+    private void onSuccess() {
+        // Read before writing so the common closed-circuit case does not dirty shared cache lines
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (openUntil.get() != 0) {
+            openUntil.set(0);
+        }
+    }
+    
+    private void onFailure() {
+        if (consecutiveFailures.incrementAndGet() >= settings.failureThreshold()) {
+            openUntil.set(System.nanoTime() + settings.openDuration().toNanos());
+        }
+    }
+    
+    /**
+     * Lock-free latency histogram with four buckets per power of two (about 19% resolution).
+     * Counts are halved every {@link #WINDOW} samples so percentiles follow recent behaviour.
+     */
+    static final class LatencyTracker {
+        
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final long WINDOW = 1024;
+        
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong sinceDecay = new AtomicLong();
+        
+        void record(long nanos) {
+            counts.incrementAndGet(bucket(Math.max(nanos, 1)));
+            total.incrementAndGet();
+            if (sinceDecay.incrementAndGet() == WINDOW) {
+                sinceDecay.set(0);
+                decay();
+            }
+        }
+        
+        long count() {
+            return total.get();
+        }
+        
+        /**
+         * Upper bound, in nanoseconds, of the bucket holding the given percentile (0.0 - 1.0).
+         */
+        long percentile(double percentile) {
+            long rank = (long) Math.ceil(percentile * total.get());
+            long seen = 0;
+            int last = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                long count = counts.get(i);
+                if (count == 0) {
+                    continue;
+                }
+                last = i;
+                seen += count;
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(last);
+        }
+        
+        private void decay() {
+            for (int i = 0; i < counts.length(); i++) {
+                long before = counts.getAndUpdate(i, count -> count / 2);
+                total.addAndGet(-(before - before / 2));
+            }
+        }
+        
+        static int bucket(long value) {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            if (exponent < SUB_BUCKET_BITS) {
+                return (int) value;
+            }
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return exponent * SUB_BUCKETS + subBucket;
+        }
+        
+        static long upperBound(int bucket) {
+            int exponent = bucket / SUB_BUCKETS;
+            if (exponent < SUB_BUCKET_BITS) {
+                return bucket;
+            }
+            int subBucket = bucket % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+    }
+}
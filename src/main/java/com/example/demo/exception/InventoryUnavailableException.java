@@ -0,0 +1,11 @@
+package com.example.demo.exception;
+
+public class InventoryUnavailableException extends RuntimeException {
+    public InventoryUnavailableException(String message) {
+        super(message);
+    }
+    
+    public InventoryUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, time-expiring map from idempotency keys to the result of the first request that used them.
+ *
+ * <p>Entries expire {@code ttl} after they were added. Every entry has the same TTL, so insertion
+ * order is also expiry order: a FIFO queue gives both the next entry to expire and the oldest entry
+ * to drop once the cache holds more than {@code maxEntries}.
+ */
+class IdempotencyCache<V> {
+    
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier ticker;
+    
+    IdempotencyCache(Duration ttl, int maxEntries) {
+        this(ttl, maxEntries, System::nanoTime);
+    }
+    
+    IdempotencyCache(Duration ttl, int maxEntries, LongSupplier ticker) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.ticker = ticker;
+    }
+    
+    /**
+     * Stores {@code value} under {@code key} unless an unexpired value is already there.
+     *
+     * @return the existing value, or null if {@code value} was stored
+     */
+    V putIfAbsent(String key, V value) {
+        long now = ticker.getAsLong();
+        Entry<V> entry = new Entry<>(key, value, now + ttlNanos);
+        
+        while (true) {
+            Entry<V> existing = entries.putIfAbsent(key, entry);
+            if (existing != null && !existing.isExpired(now)) {
+                return existing.value;
+            }
+            if (existing == null || entries.replace(key, existing, entry)) {
+                insertionOrder.add(entry);
+                evict(now);
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Removes the entry for {@code key} if it still holds {@code value}.
+     */
+    void remove(String key, V value) {
+        Entry<V> existing = entries.get(key);
+        if (existing != null && existing.value == value && entries.remove(key, existing)) {
+            insertionOrder.remove(existing);
+        }
+    }
+    
+    int size() {
+        return entries.size();
+    }
+    
+    // Entries waiting in the expiry queue; matches size() unless a concurrent insert is mid-flight
+    int queuedEntries() {
+        return insertionOrder.size();
+    }
+    
+    private void evict(long now) {
+        Entry<V> oldest;
+        while ((oldest = insertionOrder.peek()) != null
+                && (oldest.isExpired(now) || entries.size() > maxEntries || entries.get(oldest.key) != oldest)) {
+            // Only the thread that dequeues the entry drops it from the map
+            if (insertionOrder.remove(oldest)) {
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+    
+    // Compared by identity so a replaced entry for the same key is never mistaken for the current one
+    private static final class Entry<V> {
+        private final String key;
+        private final V value;
+        private final long expiresAt;
+        
+        Entry(String key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+        
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -4,60 +4,246 @@ import com.example.demo.model.Order;
 import com.example.demo.repository.OrderRepository;
 import com.example.demo.client.NotificationClient;
 import com.example.demo.client.InventoryClient;
+import com.example.metrics.MetricsConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 public class OrderService {
     
+    // How long, and for how many keys, a created order is remembered for client retries
+    private static final Duration IDEMPOTENCY_TTL = Duration.ofMinutes(10);
+    private static final int IDEMPOTENCY_MAX_KEYS = 10_000;
+    
     private final OrderRepository orderRepository;
     private final NotificationClient notificationClient;
     private final InventoryClient inventoryClient;
+    private final IdempotencyCache<CompletableFuture<Order>> recentOrders =
+        new IdempotencyCache<>(IDEMPOTENCY_TTL, IDEMPOTENCY_MAX_KEYS);
+    
+    // Meters are registered once up front so recording never allocates
+    private final boolean metricsEnabled;
+    private final Timer createTimer;
+    private final Timer getTimer;
+    private final Timer cancelTimer;
+    private final Timer inventoryPhaseTimer;
+    private final Timer pricingPhaseTimer;
+    private final Timer savePhaseTimer;
+    private final Timer notifyPhaseTimer;
+    private final Counter inventoryRejectedCounter;
+    private final Counter orderNotFoundCounter;
+    private final Counter idempotentReplayCounter;
     
-    public OrderService(OrderRepository orderRepository, 
+    public OrderService(OrderRepository orderRepository,
                        NotificationClient notificationClient,
                        InventoryClient inventoryClient) {
+        this(orderRepository, notificationClient, inventoryClient, MetricsConfiguration.defaultRegistry());
+    }
+    
+    @Autowired
+    public OrderService(OrderRepository orderRepository,
+                       NotificationClient notificationClient,
+                       InventoryClient inventoryClient,
+                       MeterRegistry meterRegistry) {
         this.orderRepository = orderRepository;
         this.notificationClient = notificationClient;
         this.inventoryClient = inventoryClient;
+        
+        this.createTimer = operationTimer(meterRegistry, "create");
+        this.getTimer = operationTimer(meterRegistry, "get");
+        this.cancelTimer = operationTimer(meterRegistry, "cancel");
+        this.inventoryPhaseTimer = phaseTimer(meterRegistry, "inventory");
+        this.pricingPhaseTimer = phaseTimer(meterRegistry, "pricing");
+        this.savePhaseTimer = phaseTimer(meterRegistry, "save");
+        this.notifyPhaseTimer = phaseTimer(meterRegistry, "notify");
+        this.inventoryRejectedCounter = Counter.builder("order.inventory.rejected")
+            .description("Orders rejected for insufficient inventory")
+            .register(meterRegistry);
+        this.orderNotFoundCounter = Counter.builder("order.not.found")
+            .description("Cancellations for orders that do not exist")
+            .register(meterRegistry);
+        this.idempotentReplayCounter = Counter.builder("order.idempotent.replays")
+            .description("createOrder calls answered from an earlier request with the same idempotency key")
+            .register(meterRegistry);
+        this.metricsEnabled = MetricsConfiguration.isRecording(createTimer);
     }
     
-    public Order createOrder(String customerId, String productId, int quantity) {
-        // Check inventory
-        if (!inventoryClient.checkAvailability(productId, quantity)) {
-            throw new IllegalStateException("Insufficient inventory for product: " + productId);
+    /**
+     * Creates an order at most once per idempotency key. A repeated key returns the order created
+     * by the first request without touching inventory, the repository or notifications; a repeat
+     * that arrives while the first request is still running waits for its outcome. If the first
+     * request fails before the order is saved, the key is released so a retry runs again. Once the
+     * order is saved the key stays bound to it: a failed confirmation is reported to this caller,
+     * but a retry returns the saved order instead of creating a second one.
+     */
+    public Order createOrder(String idempotencyKey, String customerId, String productId, int quantity) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            throw new IllegalArgumentException("Idempotency key is required");
         }
         
-        // Calculate price
-        BigDecimal unitPrice = inventoryClient.getPrice(productId);
-        BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
-        
-        // Create and save order
-        Order order = new Order(customerId, productId, quantity, totalPrice);
-        Order savedOrder = orderRepository.save(order);
-        
-        // Send notification
-        notificationClient.sendOrderConfirmation(customerId, savedOrder.getId());
+        CompletableFuture<Order> pending = new CompletableFuture<>();
+        CompletableFuture<Order> existing = recentOrders.putIfAbsent(idempotencyKey, pending);
+        if (existing != null) {
+            Order order = await(existing);
+            if (!Objects.equals(order.getCustomerId(), customerId) || !Objects.equals(order.getProductId(), productId)
+                    || order.getQuantity() != quantity) {
+                throw new IllegalArgumentException("Idempotency key already used for a different order: " + idempotencyKey);
+            }
+            idempotentReplayCounter.increment();
+            return order;
+        }
         
-        return savedOrder;
+        try {
+            return createOrder(customerId, productId, quantity, pending::complete);
+        } catch (Throwable e) {
+            // Errors included, so requests waiting on this key are never left hanging
+            if (!pending.isDone()) {
+                recentOrders.remove(idempotencyKey, pending);
+                pending.completeExceptionally(e);
+            }
+            throw e;
+        }
+    }
+    
+    public Order createOrder(String customerId, String productId, int quantity) {
+        return createOrder(customerId, productId, quantity, savedOrder -> { });
+    }
+    
+    /**
+     * Creates the order, handing it to {@code onSaved} as soon as it is stored and before the
+     * confirmation is sent.
+     */
+    private Order createOrder(String customerId, String productId, int quantity, Consumer<Order> onSaved) {
+        long start = startTiming();
+        try {
+            // Reserve inventory. If this call fails without an answer, e.g. a timeout in
+            // ResilientInventoryClient, the inventory service may still have reserved the units.
+            // They are not restored here: that could create stock that was never taken. Such
+            // units stay reserved until inventory is reconciled.
+            boolean reserved = inventoryClient.reserveInventory(productId, quantity);
+            long phaseStart = record(inventoryPhaseTimer, start);
+            if (!reserved) {
+                inventoryRejectedCounter.increment();
+                throw new IllegalStateException("Insufficient inventory for product: " + productId);
+            }
+            
+            Order savedOrder;
+            try {
+                // Calculate price
+                BigDecimal unitPrice = inventoryClient.getPrice(productId);
+                BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+                phaseStart = record(pricingPhaseTimer, phaseStart);
+                
+                // Create and save order
+                Order order = new Order(customerId, productId, quantity, totalPrice);
+                savedOrder = orderRepository.save(order);
+                phaseStart = record(savePhaseTimer, phaseStart);
+            } catch (Throwable e) {
+                // No order was stored, so the reserved units go back
+                try {
+                    inventoryClient.restoreInventory(productId, quantity);
+                } catch (RuntimeException restoreFailure) {
+                    e.addSuppressed(restoreFailure);
+                }
+                throw e;
+            }
+            
+            onSaved.accept(savedOrder);
+            
+            // Send notification
+            notificationClient.sendOrderConfirmation(customerId, savedOrder.getId());
+            record(notifyPhaseTimer, phaseStart);
+            
+            return savedOrder;
+        } finally {
+            record(createTimer, start);
+        }
     }
     
     public Optional<Order> getOrder(Long orderId) {
-        return orderRepository.findById(orderId);
+        long start = startTiming();
+        try {
+            return orderRepository.findById(orderId);
+        } finally {
+            record(getTimer, start);
+        }
     }
     
     public void cancelOrder(Long orderId) {
-        Order order = orderRepository.findById(orderId)
-            .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
-        
-        // Restore inventory
-        inventoryClient.restoreInventory(order.getProductId(), order.getQuantity());
-        
-        // Delete order
-        orderRepository.delete(order);
-        
-        // Send cancellation notification
-        notificationClient.sendOrderCancellation(order.getCustomerId(), orderId);
+        long start = startTiming();
+        try {
+            Order order = orderRepository.findById(orderId).orElse(null);
+            if (order == null) {
+                orderNotFoundCounter.increment();
+                throw new IllegalArgumentException("Order not found: " + orderId);
+            }
+            
+            // Restore inventory
+            inventoryClient.restoreInventory(order.getProductId(), order.getQuantity());
+            
+            // Delete order
+            orderRepository.delete(order);
+            
+            // Send cancellation notification
+            notificationClient.sendOrderCancellation(order.getCustomerId(), orderId);
+        } finally {
+            record(cancelTimer, start);
+        }
+    }
+    
+    private static Order await(CompletableFuture<Order> order) {
+        try {
+            return order.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+    
+    private static Timer operationTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("order.operations")
+            .description("Time spent in OrderService operations")
+            .tag("operation", operation)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+    
+    private static Timer phaseTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("order.create.phase")
+            .description("Time spent in each phase of createOrder")
+            .tag("phase", phase)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+    
+    private long startTiming() {
+        return metricsEnabled ? System.nanoTime() : 0L;
+    }
+    
+    /**
+     * Records the time elapsed since {@code start} and returns the current
+     * {@link System#nanoTime()} so it can serve as the start of the next phase.
+     * Does nothing, and reads no clock, while metrics are disabled.
+     */
+    private long record(Timer timer, long start) {
+        if (!metricsEnabled) {
+            return 0L;
+        }
+        long now = System.nanoTime();
+        timer.record(now - start, TimeUnit.NANOSECONDS);
+        return now;
     }
 }
@@ -1,19 +1,66 @@
 package com.example.demo.service;
 
+import com.example.metrics.MetricsConfiguration;
 import com.example.demo.model.User;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class UserService {
     private List<User> users;
+    // Both counts are taken together in setUsers, so the gauges always agree and a scrape never walks the list
+    private volatile UserCounts counts = new UserCounts(0, 0);
     
+    private final Timer activeUsersTimer;
+    private final Timer byEmailTimer;
+    private final Timer byNamePrefixTimer;
+    private final boolean metricsEnabled;
+    
+    /**
+     * Records lookup timings in the default registry. No gauges are registered there: the registry
+     * is shared, and a gauge can only report one service instance.
+     */
     public UserService() {
+        this(MetricsConfiguration.defaultRegistry(), false);
+    }
+    
+    /**
+     * Records lookup timings and the {@code users.total} and {@code users.active} gauges in a
+     * registry owned by this service; create at most one UserService per registry.
+     */
+    public UserService(MeterRegistry meterRegistry) {
+        this(meterRegistry, true);
+    }
+    
+    private UserService(MeterRegistry meterRegistry, boolean registerGauges) {
         this.users = new ArrayList<>();
+        this.activeUsersTimer = lookupTimer(meterRegistry, "active");
+        this.byEmailTimer = lookupTimer(meterRegistry, "email");
+        this.byNamePrefixTimer = lookupTimer(meterRegistry, "namePrefix");
+        this.metricsEnabled = MetricsConfiguration.isRecording(activeUsersTimer);
+        
+        if (registerGauges) {
+            // Held strongly: the registry belongs to this service, so the gauges never outlive it
+            Gauge.builder("users.total", this, service -> service.counts.total())
+                .description("Number of known users as of the last setUsers call")
+                .strongReference(true)
+                .register(meterRegistry);
+            Gauge.builder("users.active", this, service -> service.counts.active())
+                .description("Number of active users as of the last setUsers call")
+                .strongReference(true)
+                .register(meterRegistry);
+        }
     }
     
     public void setUsers(List<User> users) {
         this.users = users;
+        if (metricsEnabled) {
+            this.counts = new UserCounts(users.size(), users.stream().filter(User::isActive).count());
+        }
     }
     
     public List<User> getUsers() {
@@ -21,21 +68,57 @@ public class UserService {
     }
     
     public List<User> getActiveUsers() {
-        return users.stream()
-            .filter(User::isActive)
-            .collect(Collectors.toList());
+        long start = startTiming();
+        try {
+            return users.stream()
+                .filter(User::isActive)
+                .collect(Collectors.toList());
+        } finally {
+            record(activeUsersTimer, start);
+        }
     }
     
     public User getUserByEmail(String email) {
-        return users.stream()
-            .filter(u -> u.getEmail().equals(email))
-            .findFirst()
-            .orElse(null);
+        long start = startTiming();
+        try {
+            return users.stream()
+                .filter(u -> u.getEmail().equals(email))
+                .findFirst()
+                .orElse(null);
+        } finally {
+            record(byEmailTimer, start);
+        }
     }
     
     public List<User> getUsersByNamePrefix(String prefix) {
-        return users.stream()
-            .filter(u -> u.getName().startsWith(prefix))
-            .collect(Collectors.toList());
+        long start = startTiming();
+        try {
+            return users.stream()
+                .filter(u -> u.getName().startsWith(prefix))
+                .collect(Collectors.toList());
+        } finally {
+            record(byNamePrefixTimer, start);
+        }
+    }
+    
+    private long startTiming() {
+        return metricsEnabled ? System.nanoTime() : 0L;
+    }
+    
+    private void record(Timer timer, long start) {
+        if (metricsEnabled) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    private static Timer lookupTimer(MeterRegistry meterRegistry, String lookup) {
+        return Timer.builder("user.lookups")
+            .description("Time spent in UserService lookups")
+            .tag("lookup", lookup)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+    
+    private record UserCounts(long total, long active) {
     }
 }
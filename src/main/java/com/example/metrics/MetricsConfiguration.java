@@ -0,0 +1,73 @@
+package com.example.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.noop.NoopMeter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Service metrics setup. {@code app.metrics.enabled=false} (a Spring property, or a system property
+ * for services built outside Spring) denies every service meter; services see the resulting no-op
+ * meters and skip timing altogether.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfiguration {
+    
+    public static final String ENABLED_PROPERTY = "app.metrics.enabled";
+    
+    private static final MeterRegistry DISABLED_REGISTRY = disabledRegistry();
+    
+    /**
+     * Registry used by the service timers and counters when no other registry is configured.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+    
+    /**
+     * Applies the off switch to every registry in the context, including ones supplied elsewhere.
+     */
+    @Bean
+    public static BeanPostProcessor meterRegistryOffSwitch(Environment environment) {
+        boolean enabled = environment.getProperty(ENABLED_PROPERTY, Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!enabled && bean instanceof MeterRegistry registry) {
+                    registry.config().meterFilter(MeterFilter.deny());
+                }
+                return bean;
+            }
+        };
+    }
+    
+    /**
+     * Registry for services constructed without one: the Micrometer global registry, or a registry
+     * that denies every meter when the {@code app.metrics.enabled} system property is false.
+     */
+    public static MeterRegistry defaultRegistry() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true")) ? Metrics.globalRegistry : DISABLED_REGISTRY;
+    }
+    
+    /**
+     * Whether recording into the meter has any effect; false for meters denied by a filter.
+     */
+    public static boolean isRecording(Meter meter) {
+        return !(meter instanceof NoopMeter);
+    }
+    
+    private static MeterRegistry disabledRegistry() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(MeterFilter.deny());
+        return registry;
+    }
+}
@@ -0,0 +1,7 @@
+-- Prebuilt schema used by the "fast" profile instead of Hibernate schema generation
+CREATE TABLE IF NOT EXISTS accounts (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_number VARCHAR(255) NOT NULL,
+    balance NUMERIC(38,2) NOT NULL,
+    account_type VARCHAR(255) NOT NULL
+);
@@ -0,0 +1,255 @@
+package com.example.demo.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ReservingInventoryClientTest {
+    
+    private StockInventoryClient backing;
+    
+    @BeforeEach
+    void setUp() {
+        backing = new StockInventoryClient();
+    }
+    
+    @Test
+    void shouldServeMostChecksFromLocalAllotment() {
+        backing.stock.put("PROD-1", 100);
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 10);
+        
+        for (int i = 0; i < 20; i++) {
+            assertThat(client.reserveInventory("PROD-1", 1)).isTrue();
+        }
+        
+        assertThat(backing.reserveCalls.get()).isEqualTo(2);
+        assertThat(backing.stock.get("PROD-1")).isEqualTo(80);
+        assertThat(client.localStock("PROD-1")).isZero();
+    }
+    
+    @Test
+    void shouldLeaseOnlyTheOrderQuantityWhenBackingStockIsLow() {
+        backing.stock.put("PROD-1", 3);
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 10);
+        
+        assertThat(client.reserveInventory("PROD-1", 2)).isTrue();
+        assertThat(client.reserveInventory("PROD-1", 2)).isFalse();
+        assertThat(client.reserveInventory("PROD-1", 1)).isTrue();
+        
+        assertThat(backing.stock.get("PROD-1")).isZero();
+    }
+    
+    @Test
+    void shouldLeaseLargeOrdersInOneCall() {
+        backing.stock.put("PROD-1", 100);
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 10);
+        
+        assertThat(client.reserveInventory("PROD-1", 25)).isTrue();
+        
+        assertThat(backing.reserveCalls.get()).isEqualTo(1);
+        assertThat(backing.stock.get("PROD-1")).isEqualTo(75);
+    }
+    
+    @Test
+    void shouldKeepRestoredStockLocallyAndReturnSurplusInBatches() {
+        backing.stock.put("PROD-1", 100);
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 10, 20);
+        client.reserveInventory("PROD-1", 10);
+        
+        client.restoreInventory("PROD-1", 10);
+        assertThat(client.localStock("PROD-1")).isEqualTo(10);
+        assertThat(backing.restoreCalls.get()).isZero();
+        
+        client.restoreInventory("PROD-1", 15);
+        assertThat(client.localStock("PROD-1")).isEqualTo(10);
+        assertThat(backing.restoreCalls.get()).isEqualTo(1);
+        assertThat(backing.stock.get("PROD-1")).isEqualTo(105);
+    }
+    
+    @Test
+    void shouldReturnAllotmentsOnClose() {
+        backing.stock.put("PROD-1", 100);
+        backing.stock.put("PROD-2", 100);
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 10);
+        client.reserveInventory("PROD-1", 1);
+        client.reserveInventory("PROD-2", 4);
+        
+        client.close();
+        
+        assertThat(backing.stock.get("PROD-1")).isEqualTo(99);
+        assertThat(backing.stock.get("PROD-2")).isEqualTo(96);
+        assertThat(client.localStock("PROD-1")).isZero();
+    }
+    
+    @Test
+    void shouldNeverOversellUnderConcurrentOrders() throws Exception {
+        backing.stock.put("PROD-1", 1_000);
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 16);
+        AtomicInteger granted = new AtomicInteger();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int quantity = t % 3 + 1;
+                workers.add(pool.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        if (client.reserveInventory("PROD-1", quantity)) {
+                            granted.addAndGet(quantity);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        
+        assertThat(granted.get()).isLessThanOrEqualTo(1_000);
+        assertThat(granted.get() + client.localStock("PROD-1") + backing.stock.get("PROD-1")).isEqualTo(1_000);
+    }
+    
+    @Test
+    void shouldCombineLocalStockWithWhatBackingClientHasLeft() {
+        backing.stock.put("PROD-1", 13);
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 10);
+        client.reserveInventory("PROD-1", 5);
+        
+        // 5 held locally, 3 left on the backing client
+        assertThat(client.reserveInventory("PROD-1", 8)).isTrue();
+        
+        assertThat(client.localStock("PROD-1")).isZero();
+        assertThat(backing.stock.get("PROD-1")).isZero();
+    }
+    
+    @Test
+    void shouldKeepLocalStockWhenBackingClientCannotCoverShortfall() {
+        backing.stock.put("PROD-1", 12);
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 10);
+        client.reserveInventory("PROD-1", 5);
+        
+        assertThat(client.reserveInventory("PROD-1", 8)).isFalse();
+        
+        assertThat(client.localStock("PROD-1")).isEqualTo(5);
+        assertThat(backing.stock.get("PROD-1")).isEqualTo(2);
+    }
+    
+    @Test
+    void shouldCheckAvailabilityWithoutTakingStock() {
+        backing.stock.put("PROD-1", 10);
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 4);
+        client.reserveInventory("PROD-1", 1);
+        
+        assertThat(client.checkAvailability("PROD-1", 9)).isTrue();
+        assertThat(client.checkAvailability("PROD-1", 10)).isFalse();
+        
+        assertThat(client.localStock("PROD-1")).isEqualTo(3);
+        assertThat(backing.stock.get("PROD-1")).isEqualTo(6);
+    }
+    
+    @Test
+    void shouldKeepSurplusLocallyWhenReturningItFails() {
+        backing.stock.put("PROD-1", 100);
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 10, 20);
+        client.reserveInventory("PROD-1", 10);
+        backing.failRestore = true;
+        
+        // The restore took effect locally, so it must not fail and invite a retry that restores twice
+        client.restoreInventory("PROD-1", 25);
+        
+        assertThat(backing.restoreCalls.get()).isEqualTo(1);
+        assertThat(client.localStock("PROD-1")).isEqualTo(25);
+        assertThat(backing.stock.get("PROD-1")).isEqualTo(90);
+    }
+    
+    @Test
+    void shouldReturnStockOfIdleProducts() {
+        backing.stock.put("PROD-1", 100);
+        backing.stock.put("PROD-2", 100);
+        AtomicLong now = new AtomicLong();
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 10, 20, Duration.ofMinutes(10), now::get);
+        client.reserveInventory("PROD-1", 1);
+        now.addAndGet(Duration.ofMinutes(5).toNanos());
+        client.reserveInventory("PROD-2", 1);
+        
+        now.addAndGet(Duration.ofMinutes(5).toNanos());
+        client.returnIdleStock();
+        
+        assertThat(client.localStock("PROD-1")).isZero();
+        assertThat(backing.stock.get("PROD-1")).isEqualTo(99);
+        assertThat(client.localStock("PROD-2")).isEqualTo(9);
+        assertThat(backing.stock.get("PROD-2")).isEqualTo(90);
+    }
+    
+    @Test
+    void shouldKeepIdleStockLocallyWhenReturningItFails() {
+        backing.stock.put("PROD-1", 100);
+        AtomicLong now = new AtomicLong();
+        ReservingInventoryClient client = new ReservingInventoryClient(backing, 10, 20, Duration.ofMinutes(10), now::get);
+        client.reserveInventory("PROD-1", 1);
+        backing.failRestore = true;
+        
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+        client.returnIdleStock();
+        
+        assertThat(client.localStock("PROD-1")).isEqualTo(9);
+        
+        backing.failRestore = false;
+        client.returnIdleStock();
+        
+        assertThat(client.localStock("PROD-1")).isZero();
+        assertThat(backing.stock.get("PROD-1")).isEqualTo(99);
+    }
+    
+    static class StockInventoryClient implements InventoryClient {
+        final Map<String, Integer> stock = new HashMap<>();
+        final AtomicInteger reserveCalls = new AtomicInteger();
+        final AtomicInteger restoreCalls = new AtomicInteger();
+        volatile boolean failRestore;
+        
+        @Override
+        public synchronized boolean checkAvailability(String productId, int quantity) {
+            return stock.getOrDefault(productId, 0) >= quantity;
+        }
+        
+        @Override
+        public BigDecimal getPrice(String productId) {
+            return new BigDecimal("9.99");
+        }
+        
+        @Override
+        public synchronized void restoreInventory(String productId, int quantity) {
+            restoreCalls.incrementAndGet();
+            if (failRestore) {
+                throw new IllegalStateException("Inventory service unavailable");
+            }
+            stock.merge(productId, quantity, Integer::sum);
+        }
+        
+        @Override
+        public synchronized boolean reserveInventory(String productId, int quantity) {
+            reserveCalls.incrementAndGet();
+            int available = stock.getOrDefault(productId, 0);
+            if (available < quantity) {
+                return false;
+            }
+            stock.put(productId, available - quantity);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.demo.client;
+
+import com.example.demo.exception.InventoryUnavailableException;
+import com.example.demo.client.ResilientInventoryClient.Settings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ResilientInventoryClientTest {
+    
+    private ExecutorService executor;
+    private FakeInventoryClient inventory;
+    
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        inventory = new FakeInventoryClient();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        inventory.release.countDown();
+        executor.shutdownNow();
+    }
+    
+    @Test
+    void shouldBoundTailLatencyWithHedgedRequests() {
+        // Every 20th request to the inventory service stalls for 500 ms
+        inventory.fastLatencyMillis = 2;
+        inventory.slowLatencyMillis = 500;
+        inventory.slowEvery = 20;
+        ResilientInventoryClient client = new ResilientInventoryClient(inventory,
+            new Settings(Duration.ofSeconds(2), 16, 5, Duration.ofSeconds(1), 0.90, Duration.ofMillis(5)), executor);
+        
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long start = System.nanoTime();
+            assertThat(client.checkAvailability("PROD-1", 1)).isTrue();
+            latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        
+        // Only the first requests, before the latency estimate is warm, wait for the stalled call
+        List<Long> afterWarmup = new ArrayList<>(latencies.subList(40, latencies.size()));
+        Collections.sort(afterWarmup);
+        long p99 = afterWarmup.get((int) Math.ceil(afterWarmup.size() * 0.99) - 1);
+        assertThat(p99).isLessThan(250);
+        assertThat(inventory.calls.get()).isGreaterThan(200);
+    }
+    
+    @Test
+    void shouldTimeOutSlowCalls() {
+        inventory.fastLatencyMillis = 1_000;
+        ResilientInventoryClient client = new ResilientInventoryClient(inventory,
+            new Settings(Duration.ofMillis(100), 16, 5, Duration.ofSeconds(1), 0.95, Duration.ofMillis(5)), executor);
+        
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.getPrice("PROD-1"))
+            .isInstanceOf(InventoryUnavailableException.class)
+            .hasMessageContaining("timed out");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+    }
+    
+    @Test
+    void shouldRejectCallsWhenBulkheadIsFull() throws Exception {
+        inventory.blockOnRelease = true;
+        ResilientInventoryClient client = new ResilientInventoryClient(inventory,
+            new Settings(Duration.ofSeconds(2), 2, 5, Duration.ofSeconds(1), 0.95, Duration.ofMillis(5)), executor);
+        
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<BigDecimal> first = callers.submit(() -> client.getPrice("PROD-1"));
+            Future<BigDecimal> second = callers.submit(() -> client.getPrice("PROD-2"));
+            assertThat(inventory.started.await(2, TimeUnit.SECONDS)).isTrue();
+            
+            assertThatThrownBy(() -> client.getPrice("PROD-3"))
+                .isInstanceOf(InventoryUnavailableException.class)
+                .hasMessageContaining("bulkhead full");
+            
+            inventory.release.countDown();
+            assertThat(first.get(2, TimeUnit.SECONDS)).isEqualByComparingTo("9.99");
+            assertThat(second.get(2, TimeUnit.SECONDS)).isEqualByComparingTo("9.99");
+            assertThat(client.getPrice("PROD-3")).isEqualByComparingTo("9.99");
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+    
+    @Test
+    void shouldOpenCircuitAfterConsecutiveFailuresAndRecoverAfterProbe() throws Exception {
+        inventory.failing = true;
+        ResilientInventoryClient client = new ResilientInventoryClient(inventory,
+            new Settings(Duration.ofSeconds(1), 16, 3, Duration.ofMillis(200), 0.95, Duration.ofMillis(5)), executor);
+        
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.checkAvailability("PROD-1", 1))
+                .isInstanceOf(IllegalStateException.class);
+        }
+        
+        assertThatThrownBy(() -> client.checkAvailability("PROD-1", 1))
+            .isInstanceOf(InventoryUnavailableException.class)
+            .hasMessageContaining("circuit open");
+        assertThat(inventory.calls.get()).isEqualTo(3);
+        
+        inventory.failing = false;
+        Thread.sleep(300);
+        
+        assertThat(client.checkAvailability("PROD-1", 1)).isTrue();
+        assertThat(client.checkAvailability("PROD-1", 1)).isTrue();
+        assertThat(inventory.calls.get()).isEqualTo(5);
+    }
+    
+    @Test
+    void shouldNotOpenCircuitOnCallerErrors() {
+        inventory.rejectArguments = true;
+        ResilientInventoryClient client = new ResilientInventoryClient(inventory,
+            new Settings(Duration.ofSeconds(1), 16, 3, Duration.ofSeconds(10), 0.95, Duration.ofMillis(5)), executor);
+        
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> client.getPrice("UNKNOWN"))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+        
+        inventory.rejectArguments = false;
+        assertThat(client.getPrice("PROD-1")).isEqualByComparingTo("9.99");
+    }
+    
+    @Test
+    void shouldNotHedgeWhenDelayReachesDeadline() {
+        inventory.fastLatencyMillis = 2;
+        ResilientInventoryClient client = new ResilientInventoryClient(inventory,
+            new Settings(Duration.ofMillis(100), 16, 5, Duration.ofSeconds(1), 0.95, Duration.ofMillis(200)), executor);
+        for (int i = 0; i < 30; i++) {
+            client.getPrice("PROD-1");
+        }
+        inventory.calls.set(0);
+        inventory.fastLatencyMillis = 1_000;
+        
+        assertThatThrownBy(() -> client.getPrice("PROD-1"))
+            .isInstanceOf(InventoryUnavailableException.class)
+            .hasMessageContaining("timed out");
+        assertThat(inventory.calls.get()).isEqualTo(1);
+    }
+    
+    @Test
+    void shouldNeverHedgeRestoreInventory() {
+        inventory.fastLatencyMillis = 2;
+        ResilientInventoryClient client = new ResilientInventoryClient(inventory,
+            new Settings(Duration.ofSeconds(2), 16, 5, Duration.ofSeconds(1), 0.50, Duration.ofMillis(1)), executor);
+        for (int i = 0; i < 30; i++) {
+            client.getPrice("PROD-1");
+        }
+        inventory.calls.set(0);
+        inventory.fastLatencyMillis = 100;
+        
+        client.restoreInventory("PROD-1", 3);
+        
+        assertThat(inventory.calls.get()).isEqualTo(1);
+    }
+    
+    @Test
+    void shouldRejectInvalidSettings() {
+        assertThatThrownBy(() -> new Settings(Duration.ZERO, 16, 5, Duration.ofSeconds(1), 0.95, Duration.ofMillis(5)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Settings(Duration.ofSeconds(1), 0, 5, Duration.ofSeconds(1), 0.95, Duration.ofMillis(5)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Settings(Duration.ofSeconds(1), 16, 0, Duration.ofSeconds(1), 0.95, Duration.ofMillis(5)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Settings(Duration.ofSeconds(1), 16, 5, Duration.ofSeconds(-1), 0.95, Duration.ofMillis(5)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Settings(Duration.ofSeconds(1), 16, 5, Duration.ofSeconds(1), 0.0, Duration.ofMillis(5)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Settings(Duration.ofSeconds(1), 16, 5, Duration.ofSeconds(1), 1.5, Duration.ofMillis(5)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Settings(Duration.ofSeconds(1), 16, 5, Duration.ofSeconds(1), 0.95, Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+    
+    @Test
+    void shouldShutDownOwnPoolOnClose() {
+        ResilientInventoryClient client = new ResilientInventoryClient(inventory);
+        assertThat(client.getPrice("PROD-1")).isNotNull();
+        
+        client.close();
+        
+        assertThatThrownBy(() -> client.getPrice("PROD-1"))
+            .isInstanceOf(InventoryUnavailableException.class)
+            .hasMessageContaining("rejected");
+    }
+    
+    @Test
+    void shouldLeaveSuppliedExecutorRunningOnClose() {
+        ResilientInventoryClient client = new ResilientInventoryClient(inventory, Settings.defaults(), executor);
+        
+        client.close();
+        
+        assertThat(executor.isShutdown()).isFalse();
+        assertThat(client.getPrice("PROD-1")).isNotNull();
+    }
+    
+    @Test
+    void shouldEstimatePercentilesWithinBucketResolution() {
+        ResilientInventoryClient.LatencyTracker tracker = new ResilientInventoryClient.LatencyTracker();
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        
+        assertThat(tracker.count()).isEqualTo(100);
+        assertThat(tracker.percentile(0.50)).isBetween(TimeUnit.MILLISECONDS.toNanos(50), TimeUnit.MILLISECONDS.toNanos(60));
+        assertThat(tracker.percentile(0.99)).isBetween(TimeUnit.MILLISECONDS.toNanos(99), TimeUnit.MILLISECONDS.toNanos(120));
+    }
+    
+    static class FakeInventoryClient implements InventoryClient {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile long fastLatencyMillis;
+        volatile long slowLatencyMillis;
+        volatile int slowEvery;
+        volatile boolean blockOnRelease;
+        volatile boolean failing;
+        volatile boolean rejectArguments;
+        
+        @Override
+        public boolean checkAvailability(String productId, int quantity) {
+            respond();
+            return true;
+        }
+        
+        @Override
+        public BigDecimal getPrice(String productId) {
+            respond();
+            return new BigDecimal("9.99");
+        }
+        
+        @Override
+        public void restoreInventory(String productId, int quantity) {
+            respond();
+        }
+        
+        @Override
+        public boolean reserveInventory(String productId, int quantity) {
+            respond();
+            return true;
+        }
+        
+        private void respond() {
+            if (rejectArguments) {
+                throw new IllegalArgumentException("Unknown product");
+            }
+            int call = calls.incrementAndGet();
+            started.countDown();
+            try {
+                if (blockOnRelease) {
+                    release.await();
+                }
+                boolean slow = slowEvery > 0 && call % slowEvery == 0;
+                Thread.sleep(slow ? slowLatencyMillis : fastLatencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failing) {
+                throw new IllegalStateException("Inventory service error");
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.demo.service;
+
+import com.example.demo.client.InventoryClient;
+import com.example.demo.client.NotificationClient;
+import com.example.demo.model.Order;
+import com.example.demo.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderServiceIdempotencyTest {
+    
+    private OrderRepository orderRepository;
+    private NotificationClient notificationClient;
+    private InventoryClient inventoryClient;
+    private SimpleMeterRegistry registry;
+    private OrderService orderService;
+    private AtomicLong ids;
+    
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        notificationClient = mock(NotificationClient.class);
+        inventoryClient = mock(InventoryClient.class);
+        registry = new SimpleMeterRegistry();
+        orderService = new OrderService(orderRepository, notificationClient, inventoryClient, registry);
+        ids = new AtomicLong();
+        
+        when(inventoryClient.reserveInventory(any(), anyInt())).thenReturn(true);
+        when(inventoryClient.getPrice(any())).thenReturn(new BigDecimal("10.00"));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(ids.incrementAndGet());
+            return order;
+        });
+    }
+    
+    @Test
+    void shouldReturnOriginalOrderForRepeatedKey() {
+        Order first = orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2);
+        clearInvocations(inventoryClient, orderRepository, notificationClient);
+        
+        Order retry = orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2);
+        
+        assertThat(retry).isSameAs(first);
+        verifyNoInteractions(inventoryClient, orderRepository, notificationClient);
+        assertThat(registry.get("order.idempotent.replays").counter().count()).isEqualTo(1.0);
+    }
+    
+    @Test
+    void shouldCreateSeparateOrdersForDifferentKeys() {
+        Order first = orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2);
+        Order second = orderService.createOrder("KEY-2", "CUST-1", "PROD-1", 2);
+        
+        assertThat(second.getId()).isNotEqualTo(first.getId());
+        verify(notificationClient, times(2)).sendOrderConfirmation(eq("CUST-1"), any());
+    }
+    
+    @Test
+    void shouldRunAgainWhenFirstAttemptFailed() {
+        when(inventoryClient.getPrice("PROD-1"))
+            .thenThrow(new IllegalStateException("Pricing unavailable"))
+            .thenReturn(new BigDecimal("10.00"));
+        
+        assertThatThrownBy(() -> orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2))
+            .isInstanceOf(IllegalStateException.class);
+        Order retry = orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2);
+        
+        assertThat(retry.getTotalPrice()).isEqualByComparingTo("20.00");
+        verify(orderRepository, times(1)).save(any(Order.class));
+    }
+    
+    @Test
+    void shouldRejectKeyReusedForDifferentOrder() {
+        orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2);
+        
+        assertThatThrownBy(() -> orderService.createOrder("KEY-1", "CUST-1", "PROD-2", 2))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("KEY-1");
+        assertThat(registry.get("order.idempotent.replays").counter().count()).isZero();
+    }
+    
+    @Test
+    void shouldReleaseKeyWhenFirstAttemptFailsWithError() {
+        when(orderRepository.save(any(Order.class)))
+            .thenThrow(new OutOfMemoryError("Java heap space"))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        
+        assertThatThrownBy(() -> orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2))
+            .isInstanceOf(OutOfMemoryError.class);
+        
+        Order retry = orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2);
+        
+        assertThat(retry.getProductId()).isEqualTo("PROD-1");
+        verify(inventoryClient, times(1)).restoreInventory("PROD-1", 2);
+        verify(orderRepository, times(2)).save(any(Order.class));
+    }
+    
+    @Test
+    void shouldKeepKeyWhenOrderIsSavedButConfirmationFails() {
+        doThrow(new IllegalStateException("Notification service down"))
+            .doNothing()
+            .when(notificationClient).sendOrderConfirmation(any(), any());
+        
+        assertThatThrownBy(() -> orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Notification service down");
+        
+        Order retry = orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2);
+        
+        assertThat(retry.getId()).isEqualTo(1L);
+        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(inventoryClient, times(1)).reserveInventory("PROD-1", 2);
+        verify(inventoryClient, never()).restoreInventory(any(), anyInt());
+        verify(notificationClient, times(1)).sendOrderConfirmation(any(), any());
+    }
+    
+    @Test
+    void shouldMakeInFlightDuplicatesWaitForFirstAttempt() throws Exception {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch finishSave = new CountDownLatch(1);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            saving.countDown();
+            finishSave.await(2, TimeUnit.SECONDS);
+            Order order = invocation.getArgument(0);
+            order.setId(ids.incrementAndGet());
+            return order;
+        });
+        
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Order> first = callers.submit(() -> orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2));
+            assertThat(saving.await(2, TimeUnit.SECONDS)).isTrue();
+            Future<Order> duplicate = callers.submit(() -> orderService.createOrder("KEY-1", "CUST-1", "PROD-1", 2));
+            
+            Thread.sleep(100);
+            assertThat(duplicate.isDone()).isFalse();
+            
+            finishSave.countDown();
+            assertThat(duplicate.get(2, TimeUnit.SECONDS)).isSameAs(first.get(2, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+        
+        verify(inventoryClient, times(1)).reserveInventory("PROD-1", 2);
+        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(notificationClient, times(1)).sendOrderConfirmation(eq("CUST-1"), any());
+    }
+    
+    @Test
+    void shouldForgetKeysAfterTtl() {
+        AtomicLong now = new AtomicLong();
+        IdempotencyCache<String> cache = new IdempotencyCache<>(Duration.ofSeconds(10), 100, now::get);
+        
+        assertThat(cache.putIfAbsent("KEY-1", "first")).isNull();
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertThat(cache.putIfAbsent("KEY-1", "second")).isEqualTo("first");
+        
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(cache.putIfAbsent("KEY-1", "third")).isNull();
+        assertThat(cache.putIfAbsent("KEY-1", "fourth")).isEqualTo("third");
+    }
+    
+    @Test
+    void shouldDropOldestKeysWhenFull() {
+        AtomicLong now = new AtomicLong();
+        IdempotencyCache<String> cache = new IdempotencyCache<>(Duration.ofMinutes(10), 3, now::get);
+        
+        for (int i = 1; i <= 5; i++) {
+            now.incrementAndGet();
+            cache.putIfAbsent("KEY-" + i, "order-" + i);
+        }
+        
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.putIfAbsent("KEY-1", "again")).isNull();
+        assertThat(cache.putIfAbsent("KEY-5", "again")).isEqualTo("order-5");
+    }
+    
+    @Test
+    void shouldDropRemovedKeysFromExpiryQueue() {
+        IdempotencyCache<String> cache = new IdempotencyCache<>(Duration.ofMinutes(10), 100);
+        cache.putIfAbsent("KEY-0", "order-0");
+        
+        for (int i = 1; i <= 50; i++) {
+            String order = "order-" + i;
+            cache.putIfAbsent("KEY-" + i, order);
+            cache.remove("KEY-" + i, order);
+        }
+        
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.queuedEntries()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.service;
+
+import com.example.demo.client.InventoryClient;
+import com.example.demo.client.NotificationClient;
+import com.example.demo.model.Order;
+import com.example.demo.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderServiceInventoryTest {
+    
+    private OrderRepository orderRepository;
+    private NotificationClient notificationClient;
+    private InventoryClient inventoryClient;
+    private OrderService orderService;
+    
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        notificationClient = mock(NotificationClient.class);
+        inventoryClient = mock(InventoryClient.class);
+        orderService = new OrderService(orderRepository, notificationClient, inventoryClient, new SimpleMeterRegistry());
+        
+        when(inventoryClient.reserveInventory(any(), anyInt())).thenReturn(true);
+        when(inventoryClient.getPrice(any())).thenReturn(new BigDecimal("10.00"));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+    
+    @Test
+    void shouldKeepReservedStockWhenOrderIsCreated() {
+        orderService.createOrder("CUST-1", "PROD-1", 2);
+        
+        verify(inventoryClient).reserveInventory("PROD-1", 2);
+        verify(inventoryClient, never()).restoreInventory(any(), anyInt());
+    }
+    
+    @Test
+    void shouldRestoreReservedStockWhenPricingFails() {
+        when(inventoryClient.getPrice("PROD-1")).thenThrow(new IllegalStateException("Price service down"));
+        
+        assertThatThrownBy(() -> orderService.createOrder("CUST-1", "PROD-1", 2))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Price service down");
+        
+        verify(inventoryClient).restoreInventory("PROD-1", 2);
+        verifyNoInteractions(orderRepository, notificationClient);
+    }
+    
+    @Test
+    void shouldRestoreReservedStockWhenSaveFails() {
+        RuntimeException saveFailure = new RuntimeException("Database unavailable");
+        RuntimeException restoreFailure = new IllegalStateException("Inventory service unavailable");
+        when(orderRepository.save(any(Order.class))).thenThrow(saveFailure);
+        doThrow(restoreFailure).when(inventoryClient).restoreInventory("PROD-1", 2);
+        
+        assertThatThrownBy(() -> orderService.createOrder("CUST-1", "PROD-1", 2))
+            .isSameAs(saveFailure)
+            .hasSuppressedException(restoreFailure);
+        
+        verify(inventoryClient).restoreInventory("PROD-1", 2);
+        verifyNoInteractions(notificationClient);
+    }
+    
+    @Test
+    void shouldNotRestoreStockThatWasNeverReserved() {
+        when(inventoryClient.reserveInventory("PROD-1", 2)).thenReturn(false);
+        
+        assertThatThrownBy(() -> orderService.createOrder("CUST-1", "PROD-1", 2))
+            .isInstanceOf(IllegalStateException.class);
+        
+        verify(inventoryClient, never()).restoreInventory(any(), anyInt());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.service;
+
+import com.example.demo.client.InventoryClient;
+import com.example.demo.client.NotificationClient;
+import com.example.metrics.MetricsConfiguration;
+import com.example.demo.model.Order;
+import com.example.demo.repository.OrderRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderServiceMetricsTest {
+    
+    private OrderRepository orderRepository;
+    private NotificationClient notificationClient;
+    private InventoryClient inventoryClient;
+    private SimpleMeterRegistry registry;
+    private OrderService orderService;
+    
+    @BeforeEach
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        notificationClient = mock(NotificationClient.class);
+        inventoryClient = mock(InventoryClient.class);
+        registry = new SimpleMeterRegistry();
+        orderService = new OrderService(orderRepository, notificationClient, inventoryClient, registry);
+    }
+    
+    @Test
+    void shouldTimeEachPhaseOfCreateOrder() {
+        when(inventoryClient.reserveInventory("PROD-1", 2)).thenReturn(true);
+        when(inventoryClient.getPrice("PROD-1")).thenReturn(new BigDecimal("10.00"));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(1L);
+            return order;
+        });
+        
+        orderService.createOrder("CUST-1", "PROD-1", 2);
+        
+        assertThat(registry.get("order.operations").tag("operation", "create").timer().count()).isEqualTo(1);
+        for (String phase : new String[] {"inventory", "pricing", "save", "notify"}) {
+            assertThat(registry.get("order.create.phase").tag("phase", phase).timer().count())
+                .as("phase %s", phase)
+                .isEqualTo(1);
+        }
+    }
+    
+    @Test
+    void shouldCountInventoryRejections() {
+        when(inventoryClient.reserveInventory("PROD-1", 5)).thenReturn(false);
+        
+        assertThatThrownBy(() -> orderService.createOrder("CUST-1", "PROD-1", 5))
+            .isInstanceOf(IllegalStateException.class);
+        
+        assertThat(registry.get("order.inventory.rejected").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("order.create.phase").tag("phase", "pricing").timer().count()).isZero();
+        assertThat(registry.get("order.operations").tag("operation", "create").timer().count()).isEqualTo(1);
+    }
+    
+    @Test
+    void shouldCountCancellationsOfUnknownOrders() {
+        when(orderRepository.findById(42L)).thenReturn(Optional.empty());
+        
+        assertThatThrownBy(() -> orderService.cancelOrder(42L))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Order not found");
+        
+        assertThat(registry.get("order.not.found").counter().count()).isEqualTo(1.0);
+        verifyNoInteractions(inventoryClient, notificationClient);
+    }
+    
+    @Test
+    void shouldRecordNothingWhenMetricsAreDenied() {
+        SimpleMeterRegistry disabled = new SimpleMeterRegistry();
+        disabled.config().meterFilter(MeterFilter.deny());
+        OrderService service = new OrderService(orderRepository, notificationClient, inventoryClient, disabled);
+        when(orderRepository.findById(7L)).thenReturn(Optional.empty());
+        
+        service.getOrder(7L);
+        
+        assertThat(disabled.getMeters()).isEmpty();
+    }
+    
+    @Test
+    void shouldTurnOffRegistriesSuppliedOutsideMetricsConfiguration() {
+        new ApplicationContextRunner()
+            .withBean("customRegistry", MeterRegistry.class, SimpleMeterRegistry::new)
+            .withUserConfiguration(MetricsConfiguration.class)
+            .withPropertyValues("app.metrics.enabled=false")
+            .run(context -> {
+                MeterRegistry customRegistry = context.getBean("customRegistry", MeterRegistry.class);
+                assertThat(MetricsConfiguration.isRecording(customRegistry.timer("order.operations"))).isFalse();
+            });
+    }
+    
+    @Test
+    void shouldKeepRegistriesRecordingByDefault() {
+        new ApplicationContextRunner()
+            .withUserConfiguration(MetricsConfiguration.class)
+            .run(context -> {
+                MeterRegistry registry = context.getBean(MeterRegistry.class);
+                assertThat(MetricsConfiguration.isRecording(registry.timer("order.operations"))).isTrue();
+            });
+    }
+}
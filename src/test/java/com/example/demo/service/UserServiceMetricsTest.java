@@ -0,0 +1,43 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class UserServiceMetricsTest {
+    
+    @Test
+    void shouldReportCountsTakenTogetherInSetUsers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserService service = new UserService(registry);
+        List<User> users = new ArrayList<>(List.of(
+            new User("john@example.com", "John", true),
+            new User("jane@example.com", "Jane", true),
+            new User("bob@example.com", "Bob", false)));
+        service.setUsers(users);
+        
+        // Changes made through the returned list show up on the next setUsers, in both gauges at once
+        service.getUsers().add(new User("amy@example.com", "Amy", true));
+        
+        assertThat(registry.get("users.total").gauge().value()).isEqualTo(3.0);
+        assertThat(registry.get("users.active").gauge().value()).isEqualTo(2.0);
+        
+        service.setUsers(users);
+        
+        assertThat(registry.get("users.total").gauge().value()).isEqualTo(4.0);
+        assertThat(registry.get("users.active").gauge().value()).isEqualTo(3.0);
+    }
+    
+    @Test
+    void shouldNotRegisterGaugesInSharedDefaultRegistry() {
+        new UserService();
+        
+        assertThat(Metrics.globalRegistry.find("users.total").gauge()).isNull();
+    }
+}